@@ -0,0 +1,94 @@
+#!/usr/bin/env bash
+# Compares startup time of the plain, fast-start, AOT and CDS variants.
+#
+#   ./scripts/startup-benchmark.sh [runs]
+#   BOOTSTRAP_SERVERS=localhost:29092 ./scripts/startup-benchmark.sh [runs]
+#
+# "refresh" runs start the application and exit once the context is refreshed; the wall-clock
+# time of that run is reported.
+#
+# With BOOTSTRAP_SERVERS set, every variant is also started against that broker: once
+# /actuator/health is up, one get-user-by-username request is produced with
+# kafka-console-producer.sh (from KAFKA_HOME/bin or the PATH) and the users.startup.first-record
+# gauge is read back, i.e. the time from JVM start to the first consumed record.
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR_NAME=users-services-0.0.1-SNAPSHOT.jar
+COMMON_ARGS=(-Dspring.kafka.admin.auto-create=false)
+MANAGEMENT_PORT=${MANAGEMENT_PORT:-15002}
+PRODUCER=${KAFKA_HOME:+$KAFKA_HOME/bin/}kafka-console-producer.sh
+REQUEST_TOPIC=request-get-user-by-username-topic
+
+bench() {
+  local label=$1; shift
+  local total=0
+  for _ in $(seq "$RUNS"); do
+    local start end
+    start=$(date +%s%N)
+    java -Dspring.context.exit=onRefresh "$@" > /dev/null 2>&1
+    end=$(date +%s%N)
+    total=$((total + end - start))
+  done
+  printf '%-12s refresh      %6d ms (avg of %d)\n' "$label" $((total / RUNS / 1000000)) "$RUNS"
+}
+
+first_record_once() {
+  local log pid value=""
+  log=$(mktemp)
+  java -Dspring.kafka.bootstrap-servers="$BOOTSTRAP_SERVERS" -Dspring.kafka.consumer.auto-offset-reset=earliest \
+    -Dserver.port=0 -Dmanagement.server.port="$MANAGEMENT_PORT" "$@" > "$log" 2>&1 &
+  pid=$!
+
+  until curl -sf "http://localhost:$MANAGEMENT_PORT/actuator/health" > /dev/null; do
+    kill -0 "$pid" 2> /dev/null || { echo "application exited, see $log" >&2; return 1; }
+    sleep 0.1
+  done
+  echo '{"correlationId":"startup-benchmark","username":"startup-benchmark@mail.com"}' \
+    | "$PRODUCER" --bootstrap-server "$BOOTSTRAP_SERVERS" --topic "$REQUEST_TOPIC" > /dev/null
+
+  for _ in $(seq 600); do
+    # The gauge is reported in seconds and stays negative until a record has been consumed.
+    value=$(curl -sf "http://localhost:$MANAGEMENT_PORT/actuator/metrics/users.startup.first-record" \
+      | sed -n 's/.*"value":\(-\{0,1\}[0-9.E-]*\).*/\1/p') || true
+    if [[ -n "$value" ]] && awk "BEGIN { exit !($value >= 0) }"; then
+      awk "BEGIN { printf \"%d\n\", $value * 1000 }"
+      kill "$pid"
+      wait "$pid" 2> /dev/null || true
+      rm -f "$log"
+      return 0
+    fi
+    sleep 0.1
+  done
+  kill "$pid"
+  echo "no record consumed within 60 s, see $log" >&2
+  return 1
+}
+
+first_record() {
+  [[ -n "${BOOTSTRAP_SERVERS:-}" ]] || return 0
+  local label=$1; shift
+  local total=0
+  for _ in $(seq "$RUNS"); do
+    total=$((total + $(first_record_once "$@")))
+  done
+  printf '%-12s first-record %6d ms (avg of %d)\n' "$label" $((total / RUNS)) "$RUNS"
+}
+
+run() {
+  bench "$@"
+  first_record "$@"
+}
+
+cd "$ROOT"
+./mvnw -q -B package -DskipTests
+run "default" "${COMMON_ARGS[@]}" -jar "target/$JAR_NAME"
+run "fast-start" "${COMMON_ARGS[@]}" -Dspring.profiles.active=fast-start -jar "target/$JAR_NAME"
+
+./mvnw -q -B -Paot package -DskipTests
+run "aot" "${COMMON_ARGS[@]}" -Dspring.aot.enabled=true -Dspring.profiles.active=fast-start -jar "target/$JAR_NAME"
+
+./mvnw -q -B -Pcds package -DskipTests
+run "cds" "${COMMON_ARGS[@]}" -XX:SharedArchiveFile=target/extracted/application.jsa \
+  -Dspring.profiles.active=fast-start -jar "target/extracted/$JAR_NAME"
@@ -2,8 +2,10 @@ package primerriva.users_services;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UsersServicesApplication {
 
 	public static void main(String[] args) {
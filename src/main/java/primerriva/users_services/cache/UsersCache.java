@@ -0,0 +1,228 @@
+package primerriva.users_services.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import primerriva.users_services.kafka.CacheInvalidationPublisher;
+import primerriva.users_services.models.Users;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instance-local cache of {@link Users} keyed by email, kept coherent across replicas.
+ *
+ * Every write is broadcast as invalidations for the {@code email:} and {@code id:} keys it
+ * touched, on a single-partition topic that every replica reads in full. The offset of an
+ * invalidation record is its version: offsets are assigned by the broker, so versions are
+ * monotonic and do not depend on the replicas' clocks. A database read is stamped with the
+ * last offset this replica had applied when it started, and its result is only cached if no
+ * invalidation of the same key has been applied since. Reads are not cached before the
+ * invalidation listener is assigned, nor while one of this replica's own invalidations is
+ * still on its way through the topic.
+ */
+@Slf4j
+@Component
+public class UsersCache {
+
+    /**
+     * Stamp handed out before the invalidation listener is assigned; loads taken with it are never cached.
+     */
+    public static final long NOT_READY = Long.MIN_VALUE;
+
+    @Getter
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final CacheInvalidationPublisher publisher;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, String> emailsById = new ConcurrentHashMap<>();
+    private final Map<String, Tombstone> tombstones = new ConcurrentHashMap<>();
+    private final Map<String, Integer> pending = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final long ttlMs;
+    private final int maxSize;
+
+    private volatile long appliedOffset = NOT_READY;
+    private volatile long purgedBelow = NOT_READY;
+
+    public UsersCache(
+            CacheInvalidationPublisher publisher,
+            @Value("${users.cache.enabled:true}") boolean enabled,
+            @Value("${users.cache.ttl-ms:60000}") long ttlMs,
+            @Value("${users.cache.max-size:10000}") int maxSize) {
+        this.publisher = publisher;
+        this.enabled = enabled;
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Version stamp to take before reading from the database and to hand back to {@link #put}.
+     */
+    public long stamp() {
+        return appliedOffset;
+    }
+
+    public Users get(String email) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.get(email);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(email, entry);
+            return null;
+        }
+        return copy(entry.user);
+    }
+
+    public void put(Users user, long stamp) {
+        if (!enabled || user == null || user.getEmail() == null || entries.size() >= maxSize) {
+            return;
+        }
+        String email = user.getEmail();
+        String idKey = user.getId() == null ? null : idKey(user.getId());
+        if (isStale(emailKey(email), stamp) || (idKey != null && isStale(idKey, stamp))) {
+            return;
+        }
+        Entry entry = new Entry(copy(user), stamp, System.currentTimeMillis() + ttlMs);
+        entries.merge(email, entry, (current, candidate) -> candidate.stamp > current.stamp ? candidate : current);
+        if (user.getId() != null) {
+            emailsById.put(user.getId(), email);
+        }
+        // An invalidation applied between the check and the insert may have missed the new entry.
+        if (isStale(emailKey(email), stamp) || (idKey != null && isStale(idKey, stamp))) {
+            entries.remove(email, entry);
+        }
+    }
+
+    /**
+     * Evicts the given users locally and broadcasts the invalidation to every replica, this one included.
+     */
+    public void invalidate(Long id, String... emails) {
+        List<String> keys = new ArrayList<>();
+        if (id != null) {
+            keys.add(idKey(id));
+        }
+        for (String email : emails) {
+            if (email != null) {
+                keys.add(emailKey(email));
+            }
+        }
+        if (!enabled) {
+            return;
+        }
+        for (String key : keys) {
+            // Reads that started before the write may still complete; keep them out until our own record is applied.
+            pending.merge(key, 1, Integer::sum);
+            evictKey(key, Long.MAX_VALUE);
+            publisher.publish(key, instanceId).whenComplete((result, e) -> {
+                if (e != null) {
+                    log.warn("Could not broadcast cache invalidation for {}", key, e);
+                    release(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies an invalidation read from the topic at the given offset.
+     */
+    public void apply(String key, long offset, Object origin) {
+        tombstones.merge(key, new Tombstone(offset, System.currentTimeMillis()),
+            (current, candidate) -> candidate.offset > current.offset ? candidate : current);
+        evictKey(key, offset);
+        if (instanceId.equals(origin)) {
+            release(key);
+        }
+        if (offset > appliedOffset) {
+            appliedOffset = offset;
+        }
+    }
+
+    /**
+     * Called once the invalidation listener is assigned; {@code position} is the next offset it will read.
+     */
+    public void onAssigned(long position) {
+        // Records before the position are never read, so nothing can release keys still waiting on them.
+        pending.clear();
+        entries.clear();
+        appliedOffset = position - 1;
+        log.debug("Cache invalidations applied from offset {}", position);
+    }
+
+    @Scheduled(fixedDelayString = "${users.cache.purge-interval-ms:30000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt < now);
+        // A tombstone only has to outlive the reads stamped before it; slower reads are refused wholesale.
+        tombstones.values().removeIf(tombstone -> {
+            if (tombstone.appliedAt + ttlMs >= now) {
+                return false;
+            }
+            purgedBelow = Math.max(purgedBelow, tombstone.offset);
+            return true;
+        });
+        emailsById.values().removeIf(email -> !entries.containsKey(email));
+    }
+
+    private boolean isStale(String key, long stamp) {
+        if (stamp == NOT_READY || stamp < purgedBelow || pending.containsKey(key)) {
+            return true;
+        }
+        Tombstone tombstone = tombstones.get(key);
+        return tombstone != null && stamp < tombstone.offset;
+    }
+
+    private void evictKey(String key, long offset) {
+        if (key.startsWith("id:")) {
+            String email = emailsById.get(Long.valueOf(key.substring(3)));
+            if (email != null) {
+                evictEntry(email, offset);
+            }
+        } else if (key.startsWith("email:")) {
+            evictEntry(key.substring(6), offset);
+        }
+    }
+
+    private void evictEntry(String email, long offset) {
+        entries.computeIfPresent(email, (key, entry) -> entry.stamp >= offset ? entry : null);
+    }
+
+    private void release(String key) {
+        pending.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    static String emailKey(String email) {
+        return "email:" + email;
+    }
+
+    static String idKey(Long id) {
+        return "id:" + id;
+    }
+
+    private static Users copy(Users user) {
+        return Users.builder()
+            .id(user.getId())
+            .username(user.getUsername())
+            .email(user.getEmail())
+            .password(user.getPassword())
+            .version(user.getVersion())
+            .build();
+    }
+
+    private record Entry(Users user, long stamp, long expiresAt) {
+    }
+
+    private record Tombstone(long offset, long appliedAt) {
+    }
+}
@@ -0,0 +1,46 @@
+package primerriva.users_services.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import primerriva.users_services.kafka.KafkaTopics;
+
+/**
+ * Sizes the Hikari pool from the Kafka listener concurrency.
+ *
+ * Every listener thread holds at most one connection at a time, so the pool needs one
+ * connection per consumer thread plus a little headroom for everything else. An explicit
+ * {@code spring.datasource.hikari.maximum-pool-size} always wins.
+ */
+@Slf4j
+@Configuration
+public class DataSourceConfig {
+
+    static final String MAX_POOL_SIZE_PROPERTY = "spring.datasource.hikari.maximum-pool-size";
+
+    @Bean
+    public static BeanPostProcessor hikariPoolSizer(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource && !environment.containsProperty(MAX_POOL_SIZE_PROPERTY)) {
+                    int concurrency = environment.getProperty("spring.kafka.listener.concurrency", Integer.class, 1);
+                    int headroom = environment.getProperty("users.datasource.pool-headroom", Integer.class, 2);
+                    int poolSize = poolSizeFor(concurrency, headroom);
+                    dataSource.setMaximumPoolSize(poolSize);
+                    dataSource.setMinimumIdle(poolSize);
+                    log.info("Hikari pool sized to {} connections for listener concurrency {}", poolSize, concurrency);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static int poolSizeFor(int concurrency, int headroom) {
+        return KafkaTopics.REQUEST_TOPICS.size() * Math.max(concurrency, 1) + Math.max(headroom, 0);
+    }
+}
@@ -0,0 +1,29 @@
+package primerriva.users_services.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import primerriva.users_services.cache.UsersCache;
+import primerriva.users_services.kafka.KafkaCacheInvalidationListener;
+import primerriva.users_services.kafka.KafkaFlowController;
+import primerriva.users_services.kafka.KafkaUserEventListener;
+
+/**
+ * Support for the {@code fast-start} profile and the AOT/native builds.
+ */
+@Configuration
+@ImportRuntimeHints(UsersRuntimeHints.class)
+public class FastStartConfig {
+
+    /**
+     * Listener and scheduled beans register themselves on creation, so they must stay eager
+     * when {@code spring.main.lazy-initialization} is on.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerKafkaBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(KafkaUserEventListener.class,
+            KafkaCacheInvalidationListener.class, KafkaFlowController.class, UsersCache.class);
+    }
+}
@@ -1,19 +1,30 @@
 package primerriva.users_services.config;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.CommonLoggingErrorHandler;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 
 import primerriva.users_services.kafka.KafkaTopics;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Configuration
 public class KafkaConfig {
@@ -50,27 +61,49 @@ public class KafkaConfig {
     }
 
     @Bean
-    public NewTopic userByUsernameTopic() {
-        return new NewTopic(KafkaTopics.GET_USER_BY_USERNAME, partitions, replicationFactor);
+    public KafkaAdmin.NewTopics requestTopics() {
+        return new KafkaAdmin.NewTopics(KafkaTopics.REQUEST_TOPICS.stream()
+            .flatMap(topic -> Stream.of(topic, KafkaTopics.deadLetter(topic)))
+            .map(topic -> new NewTopic(topic, partitions, replicationFactor))
+            .toArray(NewTopic[]::new));
     }
 
+    /**
+     * Records that fail after the retries go to the topic's dead-letter topic. Malformed JSON and
+     * requests without a correlationId can never succeed, so they are dead-lettered on the first failure.
+     */
     @Bean
-    public NewTopic createUserTopic() {
-        return new NewTopic(KafkaTopics.CREATE_USER, partitions, replicationFactor);
+    public DefaultErrorHandler kafkaErrorHandler(KafkaTemplate<String, String> kafkaTemplate) {
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate));
+        errorHandler.addNotRetryableExceptions(JsonProcessingException.class, IllegalArgumentException.class);
+        return errorHandler;
     }
 
+    /**
+     * Single partition: its offsets are the cache versions, so they must be totally ordered.
+     */
     @Bean
-    public NewTopic getOneUserTopic() {
-        return new NewTopic(KafkaTopics.GET_ONE_USER, partitions, replicationFactor);
+    public NewTopic cacheInvalidationTopic() {
+        return TopicBuilder.name(KafkaTopics.CACHE_INVALIDATION)
+            .partitions(1)
+            .replicas(replicationFactor)
+            .compact()
+            .build();
     }
 
+    /**
+     * Manually assigned and never acknowledged, so the cache listener stores no offsets on the broker.
+     */
     @Bean
-    public NewTopic updateUserTopic() {
-        return new NewTopic(KafkaTopics.UPDATE_USER, partitions, replicationFactor);
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> cacheInvalidationListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // Invalidations are not dead-lettered; a record that cannot be applied is logged and skipped.
+        factory.setCommonErrorHandler(new CommonLoggingErrorHandler());
+        return factory;
     }
-
-    @Bean
-    public NewTopic deleteUserTopic() {
-        return new NewTopic(KafkaTopics.DELETE_USER, partitions, replicationFactor);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package primerriva.users_services.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through only one in {@code sampleEvery} WARN events per message format, for events
+ * logged with the {@link #SAMPLED} marker. Only the high-frequency request paths (invalid input,
+ * duplicates, version conflicts, rejected Kafka requests) opt in; every other warning is always
+ * logged. Formats are the parameterized templates, so every "User already exists" warning shares
+ * one counter regardless of the email it carries. Configured in logback-spring.xml.
+ */
+public class SampledWarnTurboFilter extends TurboFilter {
+
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private static final int MAX_TRACKED_FORMATS = 1024;
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private long sampleEvery = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != Level.WARN || marker == null || format == null || sampleEvery <= 1 || !marker.contains(SAMPLED)) {
+            return FilterReply.NEUTRAL;
+        }
+        AtomicLong counter = counters.get(format);
+        if (counter == null) {
+            if (counters.size() >= MAX_TRACKED_FORMATS) {
+                return FilterReply.NEUTRAL;
+            }
+            counter = counters.computeIfAbsent(format, key -> new AtomicLong());
+        }
+        return counter.getAndIncrement() % sampleEvery == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setSampleEvery(long sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+}
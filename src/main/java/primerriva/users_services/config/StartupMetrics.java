@@ -0,0 +1,49 @@
+package primerriva.users_services.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures startup from JVM launch: until the context is ready, and until the first Kafka
+ * record is consumed. Both are logged once and published as {@code users.startup.*} gauges.
+ */
+@Slf4j
+@Component
+public class StartupMetrics {
+
+    private final AtomicLong readyMillis = new AtomicLong(-1);
+    private final AtomicLong firstRecordMillis = new AtomicLong(-1);
+
+    public StartupMetrics(MeterRegistry meterRegistry) {
+        TimeGauge.builder("users.startup.ready", readyMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+            .description("Time from JVM start until the application was ready")
+            .register(meterRegistry);
+        TimeGauge.builder("users.startup.first-record", firstRecordMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+            .description("Time from JVM start until the first Kafka record was consumed")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMillis.set(sinceJvmStart());
+        log.info("Application ready {} ms after JVM start", readyMillis.get());
+    }
+
+    public void recordConsumed() {
+        if (firstRecordMillis.get() < 0 && firstRecordMillis.compareAndSet(-1, sinceJvmStart())) {
+            log.info("First record consumed {} ms after JVM start", firstRecordMillis.get());
+        }
+    }
+
+    private static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,34 @@
+package primerriva.users_services.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import primerriva.users_services.dto.UserEventDto;
+import primerriva.users_services.dto.UsersDto;
+import primerriva.users_services.models.Users;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Reflection hints for the native image.
+ *
+ * Covers the entity and DTOs (Lombok builders and accessors are only reached reflectively by
+ * Hibernate and Jackson) and the untyped containers Jackson creates when
+ * {@code KafkaMessageProcessor} reads a payload into a {@code Map}.
+ */
+public class UsersRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : new Class<?>[] { Users.class, UsersDto.class, UserEventDto.class }) {
+            hints.reflection().registerType(type,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS,
+                MemberCategory.DECLARED_FIELDS);
+        }
+        hints.reflection().registerType(LinkedHashMap.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(ArrayList.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
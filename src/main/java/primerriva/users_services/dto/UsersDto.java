@@ -11,6 +11,7 @@ public class UsersDto {
     private String username;
     private String email;
     private String password;
+    private Long version;
 }
 
 
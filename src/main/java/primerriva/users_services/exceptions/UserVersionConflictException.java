@@ -0,0 +1,11 @@
+package primerriva.users_services.exceptions;
+
+public class UserVersionConflictException extends RuntimeException {
+    public UserVersionConflictException(Long id) {
+        super("User with id " + id + " was modified concurrently");
+    }
+
+    public UserVersionConflictException(Long id, Long expectedVersion, Long currentVersion) {
+        super("User with id " + id + " is at version " + currentVersion + ", not " + expectedVersion);
+    }
+}
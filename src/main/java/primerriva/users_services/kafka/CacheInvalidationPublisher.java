@@ -0,0 +1,28 @@
+package primerriva.users_services.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Broadcasts changed cache keys on the compacted invalidation topic, one record per key so
+ * compaction keeps only the newest invalidation of each. The record offset is the version.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationPublisher {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @SneakyThrows
+    public CompletableFuture<?> publish(String key, String origin) {
+        String payload = objectMapper.writeValueAsString(Map.of("origin", origin));
+        return kafkaTemplate.send(KafkaTopics.CACHE_INVALIDATION, 0, key, payload);
+    }
+}
@@ -0,0 +1,48 @@
+package primerriva.users_services.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+import primerriva.users_services.cache.UsersCache;
+
+import java.util.Map;
+
+/**
+ * Applies the cache invalidations of every replica, this one included. The single partition is
+ * assigned manually and offsets are never committed, so no consumer group is left on the broker;
+ * each instance starts from the latest offset since its cache starts empty.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KafkaCacheInvalidationListener implements ConsumerSeekAware {
+
+    private final UsersCache usersCache;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @SneakyThrows
+    @KafkaListener(id = KafkaTopics.CACHE_INVALIDATION, idIsGroup = false,
+        topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+            topic = KafkaTopics.CACHE_INVALIDATION, partitions = "0"),
+        containerFactory = "cacheInvalidationListenerContainerFactory",
+        properties = "auto.offset.reset=latest")
+    public void handleInvalidation(ConsumerRecord<String, String> record) {
+        if (record.key() == null) {
+            return;
+        }
+        Object origin = record.value() == null ? null : objectMapper.readValue(record.value(), Map.class).get("origin");
+        log.debug("Invalidating {} at offset {}", record.key(), record.offset());
+        usersCache.apply(record.key(), record.offset(), origin);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        assignments.values().forEach(usersCache::onAssigned);
+    }
+}
@@ -0,0 +1,200 @@
+package primerriva.users_services.kafka;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive flow control for the request listeners.
+ *
+ * Database latency and Hikari pool saturation drive two mechanisms: the {@link TopicRateLimiter}
+ * scale (multiplicative decrease while degraded, additive increase once healthy) and pausing
+ * of listener containers when the database is overwhelmed. Write topics are paused first; read
+ * topics are only paused once threads have been waiting for a connection over several
+ * consecutive checks. A single sample of waiting threads is ignored, since it also counts
+ * threads that are only briefly inside the pool's borrow. After a pause the scale restarts from
+ * its minimum so the backlog drains gradually instead of all at once.
+ *
+ * Latency is read from Hikari's own connection timers (acquire plus usage per borrowed
+ * connection), so it only covers JDBC work: cache hits and producer sends never enter the
+ * average, and a slow broker is not mistaken for a slow database.
+ */
+@Slf4j
+@Component
+public class KafkaFlowController {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final TopicRateLimiter rateLimiter;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Boolean> paused = new ConcurrentHashMap<>();
+
+    private final long targetLatencyNanos;
+    private final long pauseLatencyNanos;
+    private final double minScale;
+    private final double scaleStep;
+    private final int contentionChecks;
+    private final int saturationChecks;
+
+    private volatile double latencyNanos;
+    private int waitingChecks;
+    private boolean sampled;
+    private long sampledConnections;
+    private double sampledNanos;
+
+    public KafkaFlowController(
+            KafkaListenerEndpointRegistry registry,
+            TopicRateLimiter rateLimiter,
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.flow.target-latency-ms:50}") long targetLatencyMs,
+            @Value("${kafka.flow.pause-latency-ms:500}") long pauseLatencyMs,
+            @Value("${kafka.flow.min-scale:0.1}") double minScale,
+            @Value("${kafka.flow.scale-step:0.1}") double scaleStep,
+            @Value("${kafka.flow.contention-checks:2}") int contentionChecks,
+            @Value("${kafka.flow.saturation-checks:5}") int saturationChecks) {
+        this.registry = registry;
+        this.rateLimiter = rateLimiter;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.pauseLatencyNanos = TimeUnit.MILLISECONDS.toNanos(pauseLatencyMs);
+        this.minScale = minScale;
+        this.scaleStep = scaleStep;
+        this.contentionChecks = contentionChecks;
+        this.saturationChecks = saturationChecks;
+
+        for (String topic : KafkaTopics.REQUEST_TOPICS) {
+            paused.put(topic, false);
+            Gauge.builder("users.flow.paused", () -> paused.get(topic) ? 1 : 0)
+                .tag("topic", topic)
+                .description("1 while the topic's listener container is paused by flow control")
+                .register(meterRegistry);
+        }
+        Gauge.builder("users.flow.db.latency", () -> latencyNanos / TimeUnit.MILLISECONDS.toNanos(1))
+            .baseUnit("milliseconds")
+            .description("Smoothed connection acquire plus usage time used for flow control")
+            .register(meterRegistry);
+        Gauge.builder("users.flow.scale", rateLimiter::getScale)
+            .description("Fraction of the configured topic rates currently allowed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Feeds one database latency sample into the smoothed latency.
+     */
+    synchronized void recordLatency(long nanos) {
+        latencyNanos = latencyNanos == 0 ? nanos : latencyNanos + LATENCY_SMOOTHING * (nanos - latencyNanos);
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.flow.check-interval-ms:1000}")
+    public void adjust() {
+        boolean anyPaused = paused.containsValue(true);
+        if (anyPaused) {
+            // Paused topics stop producing samples, so probe the pool to see whether the DB recovered.
+            probe();
+        }
+        sampleDbLatency();
+
+        HikariPoolMXBean pool = poolStats();
+        waitingChecks = pool != null && pool.getThreadsAwaitingConnection() > 0 ? waitingChecks + 1 : 0;
+        boolean contended = waitingChecks >= contentionChecks;
+        boolean saturated = waitingChecks >= saturationChecks;
+        boolean degraded = contended || latencyNanos > targetLatencyNanos;
+        boolean critical = saturated || latencyNanos > pauseLatencyNanos;
+
+        if (degraded) {
+            rateLimiter.setScale(Math.max(minScale, rateLimiter.getScale() / 2));
+        } else if (!anyPaused) {
+            rateLimiter.setScale(Math.min(1.0, rateLimiter.getScale() + scaleStep));
+        }
+
+        for (String topic : KafkaTopics.REQUEST_TOPICS) {
+            boolean read = TopicRateLimiter.READ_TOPICS.contains(topic);
+            boolean shouldPause = read ? saturated : critical;
+            if (shouldPause && !paused.get(topic)) {
+                setPaused(topic, true);
+            } else if (!critical && !degraded && paused.get(topic)) {
+                rateLimiter.setScale(minScale);
+                setPaused(topic, false);
+            }
+        }
+    }
+
+    public boolean isPaused(String topic) {
+        return paused.getOrDefault(topic, false);
+    }
+
+    private void setPaused(String topic, boolean pause) {
+        MessageListenerContainer container = registry.getListenerContainer(topic);
+        if (container == null) {
+            return;
+        }
+        if (pause) {
+            container.pause();
+            log.warn("Paused {} (db latency {} ms)", topic, TimeUnit.NANOSECONDS.toMillis((long) latencyNanos));
+        } else {
+            container.resume();
+            log.info("Resumed {} (db latency {} ms)", topic, TimeUnit.NANOSECONDS.toMillis((long) latencyNanos));
+        }
+        paused.put(topic, pause);
+    }
+
+    private void probe() {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        } catch (SQLException e) {
+            // A failed borrow is not recorded by the pool timers, so count it here.
+            log.debug("Flow control probe failed", e);
+            recordLatency(Math.max(pauseLatencyNanos * 2, System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Records the mean acquire plus usage time of the connections returned since the last check.
+     */
+    private void sampleDbLatency() {
+        Timer acquire = poolTimer("hikaricp.connections.acquire");
+        Timer usage = poolTimer("hikaricp.connections.usage");
+        if (acquire == null || usage == null) {
+            return;
+        }
+        long connections = usage.count();
+        double nanos = acquire.totalTime(TimeUnit.NANOSECONDS) + usage.totalTime(TimeUnit.NANOSECONDS);
+        // The first check only takes a baseline, leaving out schema setup and pool warm-up at startup.
+        if (sampled && connections > sampledConnections) {
+            recordLatency((long) ((nanos - sampledNanos) / (connections - sampledConnections)));
+        }
+        sampled = true;
+        sampledConnections = connections;
+        sampledNanos = nanos;
+    }
+
+    private Timer poolTimer(String name) {
+        return dataSource instanceof HikariDataSource hikari
+            ? meterRegistry.find(name).tag("pool", hikari.getPoolName()).timer()
+            : null;
+    }
+
+    private HikariPoolMXBean poolStats() {
+        return dataSource instanceof HikariDataSource hikari ? hikari.getHikariPoolMXBean() : null;
+    }
+}
@@ -3,24 +3,61 @@ package primerriva.users_services.kafka;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import primerriva.users_services.config.StartupMetrics;
+import primerriva.users_services.exceptions.UserAlreadyExistsException;
+import primerriva.users_services.exceptions.UserNotFoundException;
+import primerriva.users_services.exceptions.UserVersionConflictException;
+
 import java.util.Map;
 import java.util.function.Function;
 
+import static primerriva.users_services.config.SampledWarnTurboFilter.SAMPLED;
+
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class KafkaMessageProcessor {
 
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TopicRateLimiter rateLimiter;
+    private final StartupMetrics startupMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @SneakyThrows
-    public void process(String message, String operation, Function<Map<String, Object>, Object> processor) {
+    public void process(String topic, String message, String operation, Function<Map<String, Object>, Object> processor) {
+        startupMetrics.recordConsumed();
+        // Parsed before taking a permit so a malformed record does not use up the topic's rate.
         Map<String, Object> payload = objectMapper.readValue(message, Map.class);
-        processor.apply(payload);
+        rateLimiter.acquire(topic);
+        String correlationId = payload.get("correlationId") instanceof String id ? id : null;
+        if (correlationId != null) {
+            MDC.put("correlationId", correlationId);
+        }
+        try {
+            processor.apply(payload);
+        } catch (UserNotFoundException | UserAlreadyExistsException | UserVersionConflictException
+                | IllegalArgumentException e) {
+            // Rejections are final, so answer the caller instead of letting the container retry.
+            if (correlationId == null) {
+                throw e;
+            }
+            if (e instanceof UserNotFoundException) {
+                // A lookup miss is an ordinary answer, not a problem with the request.
+                log.debug("Rejected {}: {}", operation, e.getMessage());
+            } else {
+                log.warn(SAMPLED, "Rejected {}: {}", operation, e.getMessage());
+            }
+            sendErrorResponse(correlationId, statusFor(e), e.getMessage());
+        } finally {
+            MDC.remove("correlationId");
+        }
     }
 
     public String getRequiredString(Map<String, Object> payload, String key) {
@@ -39,9 +76,45 @@ public class KafkaMessageProcessor {
         return ((Number) value).longValue();
     }
 
+    public String getOptionalString(Map<String, Object> payload, String key) {
+        Object value = payload.get(key);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Invalid '" + key + "' in payload");
+        }
+        return (String) value;
+    }
+
+    public Long getOptionalLong(Map<String, Object> payload, String key) {
+        Object value = payload.get(key);
+        if (value != null && !(value instanceof Number)) {
+            throw new IllegalArgumentException("Invalid '" + key + "' in payload");
+        }
+        return value == null ? null : ((Number) value).longValue();
+    }
+
     @SneakyThrows
     public void sendSuccessResponse(String correlationId, Map<String, Object> response) {
         String payload = objectMapper.writeValueAsString(response);
         kafkaTemplate.send("response-topic", correlationId, payload);
     }
+
+    @SneakyThrows
+    public void sendErrorResponse(String correlationId, HttpStatus status, String message) {
+        String payload = objectMapper.writeValueAsString(Map.of(
+            "status", status.value(),
+            "error", status.getReasonPhrase(),
+            "message", message
+        ));
+        kafkaTemplate.send("response-topic", correlationId, payload);
+    }
+
+    private static HttpStatus statusFor(RuntimeException e) {
+        if (e instanceof UserNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof UserAlreadyExistsException || e instanceof UserVersionConflictException) {
+            return HttpStatus.CONFLICT;
+        }
+        return HttpStatus.BAD_REQUEST;
+    }
 }
\ No newline at end of file
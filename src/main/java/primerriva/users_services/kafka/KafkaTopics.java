@@ -2,6 +2,8 @@ package primerriva.users_services.kafka;
 
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @NoArgsConstructor
 public final class KafkaTopics {
     public static final String GET_USER_BY_USERNAME = "request-get-user-by-username-topic";
@@ -9,4 +11,16 @@ public final class KafkaTopics {
     public static final String GET_ONE_USER = "request-user-get-by-id-topic";
     public static final String UPDATE_USER = "request-user-updated-topic";
     public static final String DELETE_USER = "request-user-deleted-topic";
+    public static final String CACHE_INVALIDATION = "users-cache-invalidation-topic";
+
+    public static final List<String> REQUEST_TOPICS = List.of(
+        GET_USER_BY_USERNAME, CREATE_USER, GET_ONE_USER, UPDATE_USER, DELETE_USER
+    );
+
+    /**
+     * Topic that receives the records of {@code topic} that can never be processed, on the same partition.
+     */
+    public static String deadLetter(String topic) {
+        return topic + "-dlt";
+    }
 }
@@ -19,9 +19,9 @@ public class KafkaUserEventListener {
     private final UsersService usersService;
     private final KafkaMessageProcessor kafkaMessageProcessor;
 
-    @KafkaListener(topics = KafkaTopics.GET_USER_BY_USERNAME, groupId = "users-service-group")
+    @KafkaListener(id = KafkaTopics.GET_USER_BY_USERNAME, topics = KafkaTopics.GET_USER_BY_USERNAME, groupId = "users-service-group")
     public void handleGetUserByUsernameRequest(String message) {
-        kafkaMessageProcessor.process(message, "get user by username", payload -> {
+        kafkaMessageProcessor.process(KafkaTopics.GET_USER_BY_USERNAME, message, "get user by username", payload -> {
             String correlationId = kafkaMessageProcessor.getRequiredString(payload, "correlationId");
             String username = kafkaMessageProcessor.getRequiredString(payload, "username");
             log.debug("Processing get user by username: {}", username);
@@ -36,9 +36,9 @@ public class KafkaUserEventListener {
         });
     }
 
-    @KafkaListener(topics = KafkaTopics.CREATE_USER, groupId = "users-service-group")
+    @KafkaListener(id = KafkaTopics.CREATE_USER, topics = KafkaTopics.CREATE_USER, groupId = "users-service-group")
     public void handleCreateUserRequest(String message) {
-        kafkaMessageProcessor.process(message, "create user", payload -> {
+        kafkaMessageProcessor.process(KafkaTopics.CREATE_USER, message, "create user", payload -> {
             String correlationId = kafkaMessageProcessor.getRequiredString(payload, "correlationId");
             String name = kafkaMessageProcessor.getRequiredString(payload, "name");
             String email = kafkaMessageProcessor.getRequiredString(payload, "email");
@@ -61,9 +61,9 @@ public class KafkaUserEventListener {
         });
     }
 
-    @KafkaListener(topics = KafkaTopics.GET_ONE_USER, groupId = "users-service-group")
+    @KafkaListener(id = KafkaTopics.GET_ONE_USER, topics = KafkaTopics.GET_ONE_USER, groupId = "users-service-group")
     public void handleGetOneUserRequest(String message) {
-        kafkaMessageProcessor.process(message, "get one user", payload -> {
+        kafkaMessageProcessor.process(KafkaTopics.GET_ONE_USER, message, "get one user", payload -> {
             String correlationId = kafkaMessageProcessor.getRequiredString(payload, "correlationId");
             String email = kafkaMessageProcessor.getRequiredString(payload, "email");
             log.debug("Processing get user by email: {}", email);
@@ -79,36 +79,39 @@ public class KafkaUserEventListener {
         });
     }
 
-    @KafkaListener(topics = KafkaTopics.UPDATE_USER, groupId = "users-service-group")
+    @KafkaListener(id = KafkaTopics.UPDATE_USER, topics = KafkaTopics.UPDATE_USER, groupId = "users-service-group")
     public void handleUpdateUserRequest(String message) {
-        kafkaMessageProcessor.process(message, "update user", payload -> {
+        kafkaMessageProcessor.process(KafkaTopics.UPDATE_USER, message, "update user", payload -> {
             String correlationId = kafkaMessageProcessor.getRequiredString(payload, "correlationId");
             Long id = kafkaMessageProcessor.getRequiredLong(payload, "id");
-            String username = kafkaMessageProcessor.getRequiredString(payload, "username");
-            String email = kafkaMessageProcessor.getRequiredString(payload, "email");
-            String password = kafkaMessageProcessor.getRequiredString(payload, "password");
-            log.debug("Updating user: id={}, username={}, email={}", id, username, email);
+            String username = kafkaMessageProcessor.getOptionalString(payload, "username");
+            String email = kafkaMessageProcessor.getOptionalString(payload, "email");
+            String password = kafkaMessageProcessor.getOptionalString(payload, "password");
+            Long version = kafkaMessageProcessor.getOptionalLong(payload, "version");
+            log.debug("Updating user: id={}, username={}, email={}, version={}", id, username, email, version);
 
             UsersDto userDto = UsersDto.builder()
                 .username(username)
                 .email(email)
                 .password(password)
+                .version(version)
                 .build();
 
-            usersService.updateUser(id, userDto);
+            Users user = usersService.updateUser(id, userDto);
             kafkaMessageProcessor.sendSuccessResponse(correlationId, Map.of(
-                "id", id,
-                "username", username,
-                "email", email,
+                "id", user.getId(),
+                "username", user.getUsername(),
+                "email", user.getEmail(),
+                "version", user.getVersion(),
                 "roles", List.of("USER")
             ));
             return null;
         });
     }
 
-    @KafkaListener(topics = KafkaTopics.DELETE_USER, groupId = "users-service-group")
+    @KafkaListener(id = KafkaTopics.DELETE_USER, topics = KafkaTopics.DELETE_USER, groupId = "users-service-group")
     public void handleDeleteUserRequest(String message) {
-        kafkaMessageProcessor.process(message, "delete user", payload -> {
+        kafkaMessageProcessor.process(KafkaTopics.DELETE_USER, message, "delete user", payload -> {
             String correlationId = kafkaMessageProcessor.getRequiredString(payload, "correlationId");
             Long id = kafkaMessageProcessor.getRequiredLong(payload, "id");
             log.debug("Deleting user: id={}", id);
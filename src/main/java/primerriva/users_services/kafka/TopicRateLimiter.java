@@ -0,0 +1,111 @@
+package primerriva.users_services.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-topic token buckets shared by every listener thread.
+ *
+ * The configured rates are scaled down by {@link KafkaFlowController} while the database is
+ * struggling. Read topics never drop below {@code readFloor} of their rate so lookups keep
+ * flowing while bulk writes are throttled.
+ */
+@Component
+public class TopicRateLimiter {
+
+    static final Set<String> READ_TOPICS = Set.of(KafkaTopics.GET_USER_BY_USERNAME, KafkaTopics.GET_ONE_USER);
+
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private final double readFloor;
+    private volatile double scale = 1.0;
+
+    public TopicRateLimiter(
+            @Value("${kafka.flow.read-rate:500}") double readRate,
+            @Value("${kafka.flow.write-rate:100}") double writeRate,
+            @Value("${kafka.flow.read-floor:0.5}") double readFloor,
+            MeterRegistry meterRegistry) {
+        this.readFloor = readFloor;
+        for (String topic : KafkaTopics.REQUEST_TOPICS) {
+            TokenBucket bucket = new TokenBucket(READ_TOPICS.contains(topic) ? readRate : writeRate);
+            buckets.put(topic, bucket);
+            Gauge.builder("users.flow.rate.limit", () -> effectiveRate(topic))
+                .tag("topic", topic)
+                .description("Current permits per second for the topic")
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Blocks the calling listener thread until the topic has a permit available.
+     */
+    public void acquire(String topic) {
+        TokenBucket bucket = buckets.get(topic);
+        if (bucket == null) {
+            return;
+        }
+        long waitNanos;
+        while ((waitNanos = bucket.tryAcquire(effectiveRate(topic))) > 0) {
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public double effectiveRate(String topic) {
+        TokenBucket bucket = buckets.get(topic);
+        if (bucket == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double topicScale = READ_TOPICS.contains(topic) ? Math.max(scale, readFloor) : scale;
+        return bucket.baseRate * topicScale;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    void setScale(double scale) {
+        this.scale = Math.max(0.0, Math.min(1.0, scale));
+    }
+
+    static final class TokenBucket {
+        private final double baseRate;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(double baseRate) {
+            this.baseRate = baseRate;
+            this.tokens = baseRate;
+        }
+
+        /**
+         * Takes a token if one is available.
+         *
+         * @return 0 when a token was taken, otherwise the nanos until the next one is due
+         */
+        synchronized long tryAcquire(double rate) {
+            if (rate <= 0) {
+                return TimeUnit.MILLISECONDS.toNanos(100);
+            }
+            long now = System.nanoTime();
+            // Capacity tracks the current rate so a throttled topic cannot bank a full burst.
+            tokens = Math.min(Math.max(rate, 1.0), tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+            lastRefill = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return 0;
+            }
+            return (long) Math.ceil((1.0 - tokens) * TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+    }
+}
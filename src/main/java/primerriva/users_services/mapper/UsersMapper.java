@@ -21,4 +21,35 @@ public class UsersMapper {
                 .password(dto.getPassword())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Copies the fields present in the patch onto the entity; absent (null) fields are left as is.
+     *
+     * @return true if at least one field changed
+     */
+    public static boolean applyPatch(Users target, UsersDto patch) {
+        if (patch == null) {
+            throw new IllegalArgumentException("UsersDto must not be null");
+        }
+        if (patch.getUsername() != null && patch.getUsername().isBlank()) {
+            throw new IllegalArgumentException("Username must not be empty");
+        }
+        if (patch.getEmail() != null && patch.getEmail().isBlank()) {
+            throw new IllegalArgumentException("Email must not be empty");
+        }
+        boolean changed = false;
+        if (patch.getUsername() != null && !patch.getUsername().equals(target.getUsername())) {
+            target.setUsername(patch.getUsername());
+            changed = true;
+        }
+        if (patch.getEmail() != null && !patch.getEmail().equals(target.getEmail())) {
+            target.setEmail(patch.getEmail());
+            changed = true;
+        }
+        if (patch.getPassword() != null && !patch.getPassword().equals(target.getPassword())) {
+            target.setPassword(patch.getPassword());
+            changed = true;
+        }
+        return changed;
+    }
+}
@@ -3,14 +3,20 @@ package primerriva.users_services.models;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Data
 @Builder
 @Entity
+@DynamicUpdate
+@Table(name = "users", indexes = @Index(name = "ux_users_email", columnList = "email", unique = true))
 @AllArgsConstructor
 @NoArgsConstructor
 public class Users {
@@ -18,4 +24,5 @@ public class Users {
   private String username;
   private String email;
   private String password;
+  private @Version Long version;
 }
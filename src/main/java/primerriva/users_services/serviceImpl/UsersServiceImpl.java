@@ -3,15 +3,21 @@ package primerriva.users_services.serviceImpl;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import primerriva.users_services.cache.UsersCache;
 import primerriva.users_services.dto.UsersDto;
 import primerriva.users_services.exceptions.UserAlreadyExistsException;
 import primerriva.users_services.exceptions.UserNotFoundException;
+import primerriva.users_services.exceptions.UserVersionConflictException;
 import primerriva.users_services.mapper.UsersMapper;
 import primerriva.users_services.models.Users;
 import primerriva.users_services.repositories.UsersRepository;
 import primerriva.users_services.services.UsersService;
 
+import static primerriva.users_services.config.SampledWarnTurboFilter.SAMPLED;
+
 @Service
 @RequiredArgsConstructor
 public class UsersServiceImpl implements UsersService {
@@ -19,18 +25,25 @@ public class UsersServiceImpl implements UsersService {
     private static final Logger logger = LoggerFactory.getLogger(UsersServiceImpl.class);
 
     private final UsersRepository usersRepository;
+    private final UsersCache usersCache;
 
     @Override
     public Users getUserByEmail(String email) {
         if (email == null || email.isBlank()) {
-            logger.warn("Email must not be null or empty");
+            logger.warn(SAMPLED, "Email must not be null or empty");
             throw new IllegalArgumentException("Email must not be null or empty");
         }
+        Users cached = usersCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = usersCache.stamp();
         Users user = usersRepository.findByEmail(email);
         if (user == null) {
-            logger.warn("User not found for email: {}", email);
+            logger.debug("User not found for email: {}", email);
             throw new UserNotFoundException(email);
         }
+        usersCache.put(user, loadedAt);
         logger.debug("Retrieved user with email: {}", email);
         return user;
     }
@@ -38,52 +51,80 @@ public class UsersServiceImpl implements UsersService {
     @Override
     public void createUser(UsersDto userDto) {
         if (userDto == null) {
-            logger.warn("User DTO must not be null");
+            logger.warn(SAMPLED, "User DTO must not be null");
             throw new IllegalArgumentException("User DTO must not be null");
         }
         if (usersRepository.findByEmail(userDto.getEmail()) != null) {
-            logger.warn("User already exists with email: {}", userDto.getEmail());
+            logger.warn(SAMPLED, "User already exists with email: {}", userDto.getEmail());
             throw new UserAlreadyExistsException(userDto.getEmail());
         }
         Users user = UsersMapper.toEntity(userDto);
-        usersRepository.save(user);
-        logger.info("Created user with email: {}", userDto.getEmail());
+        try {
+            usersRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn(SAMPLED, "Concurrent create lost the unique email race for: {}", userDto.getEmail());
+            throw new UserAlreadyExistsException(userDto.getEmail());
+        }
+        usersCache.invalidate(user.getId(), user.getEmail());
+        logger.debug("Created user with email: {}", userDto.getEmail());
     }
 
     @Override
-    public void updateUser(Long id, UsersDto userDto) {
+    public Users updateUser(Long id, UsersDto userDto) {
         if (id == null || id <= 0) {
-            logger.warn("ID must be a positive number");
+            logger.warn(SAMPLED, "ID must be a positive number");
             throw new IllegalArgumentException("ID must be a positive number");
         }
         if (userDto == null) {
-            logger.warn("User DTO must not be null");
+            logger.warn(SAMPLED, "User DTO must not be null");
             throw new IllegalArgumentException("User DTO must not be null");
         }
         Users existingUser = usersRepository.findById(id)
                 .orElseThrow(() -> {
-                    logger.warn("User not found for id: {}", id);
+                    logger.debug("User not found for id: {}", id);
                     return new UserNotFoundException(id);
                 });
-        Users updatedUser = UsersMapper.toEntity(userDto);
-        existingUser.setUsername(updatedUser.getUsername());
-        existingUser.setEmail(updatedUser.getEmail());
-        existingUser.setPassword(updatedUser.getPassword());
-        usersRepository.save(existingUser);
-        logger.info("Updated user with id: {}", id);
+        if (userDto.getVersion() != null && !userDto.getVersion().equals(existingUser.getVersion())) {
+            logger.warn(SAMPLED, "Version conflict for user id: {}", id);
+            throw new UserVersionConflictException(id, userDto.getVersion(), existingUser.getVersion());
+        }
+        String previousEmail = existingUser.getEmail();
+        if (userDto.getEmail() != null && !userDto.getEmail().equals(previousEmail)
+                && usersRepository.findByEmail(userDto.getEmail()) != null) {
+            logger.warn(SAMPLED, "User already exists with email: {}", userDto.getEmail());
+            throw new UserAlreadyExistsException(userDto.getEmail());
+        }
+        if (!UsersMapper.applyPatch(existingUser, userDto)) {
+            logger.debug("No changes for user with id: {}", id);
+            return existingUser;
+        }
+        Users savedUser;
+        try {
+            savedUser = usersRepository.save(existingUser);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn(SAMPLED, "Concurrent update for user id: {}", id);
+            throw new UserVersionConflictException(id);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn(SAMPLED, "Concurrent update lost the unique email race for: {}", existingUser.getEmail());
+            throw new UserAlreadyExistsException(existingUser.getEmail());
+        }
+        usersCache.invalidate(id, previousEmail, existingUser.getEmail());
+        logger.debug("Updated user with id: {}", id);
+        return savedUser;
     }
 
     @Override
     public void deleteUser(Long id) {
         if (id == null || id <= 0) {
-            logger.warn("ID must be a positive number");
+            logger.warn(SAMPLED, "ID must be a positive number");
             throw new IllegalArgumentException("ID must be a positive number");
         }
         if (!usersRepository.existsById(id)) {
-            logger.warn("User not found for id: {}", id);
+            logger.debug("User not found for id: {}", id);
             throw new UserNotFoundException(id);
         }
         usersRepository.deleteById(id);
-        logger.info("Deleted user with id: {}", id);
+        usersCache.invalidate(id);
+        logger.debug("Deleted user with id: {}", id);
     }
 }
\ No newline at end of file
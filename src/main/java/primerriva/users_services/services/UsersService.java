@@ -21,13 +21,14 @@ public interface UsersService {
     void createUser(UsersDto user);
 
     /**
-     * This method is used to update an existing user.
+     * This method is used to update an existing user. Only the non-null fields of the
+     * payload are changed; when the payload carries a version it must match the stored one.
      *
      * @param id   the id of the user to be updated
-     * @param user the updated user
+     * @param user the fields to change
      * @return the updated user
      */
-    void updateUser(Long id, UsersDto user);
+    Users updateUser(Long id, UsersDto user);
 
     /**
      * This method is used to delete a user by id.
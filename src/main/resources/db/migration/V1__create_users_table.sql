@@ -0,0 +1,12 @@
+-- Hibernate's default @GeneratedValue strategy uses a pooled sequence with an allocation size of 50.
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT       NOT NULL PRIMARY KEY,
+    username VARCHAR(255),
+    email    VARCHAR(255),
+    password VARCHAR(255)
+);
+
+-- getUserByEmail backs every lookup listener, and createUser relies on the email being unique.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email ON users (email);
@@ -0,0 +1,2 @@
+-- Optimistic locking for UsersServiceImpl.updateUser.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
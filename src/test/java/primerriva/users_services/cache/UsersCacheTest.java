@@ -0,0 +1,128 @@
+package primerriva.users_services.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import primerriva.users_services.kafka.CacheInvalidationPublisher;
+import primerriva.users_services.models.Users;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsersCacheTest {
+
+    @Mock
+    private CacheInvalidationPublisher publisher;
+
+    private UsersCache usersCache;
+
+    private final Users alice = Users.builder()
+            .id(1L)
+            .username("Alice")
+            .email("alice@mail.com")
+            .password("hashedPassword")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        usersCache = new UsersCache(publisher, true, 60_000, 100);
+        usersCache.onAssigned(10);
+    }
+
+    @Test
+    @DisplayName("Returns a copy of a cached user")
+    void put_thenGet_returnsCopy() {
+        usersCache.put(alice, usersCache.stamp());
+
+        Users cached = usersCache.get("alice@mail.com");
+
+        assertEquals(alice, cached);
+        assertNotSame(alice, cached);
+    }
+
+    @Test
+    @DisplayName("Nothing is cached before the invalidation listener is assigned")
+    void notAssigned_isNotCached() {
+        UsersCache unassigned = new UsersCache(publisher, true, 60_000, 100);
+
+        assertEquals(UsersCache.NOT_READY, unassigned.stamp());
+        unassigned.put(alice, unassigned.stamp());
+
+        assertNull(unassigned.get("alice@mail.com"));
+    }
+
+    @Test
+    @DisplayName("Remote invalidation by id evicts the entry cached by email")
+    void applyById_removesEntry() {
+        usersCache.put(alice, usersCache.stamp());
+
+        usersCache.apply("id:1", 10, "other");
+
+        assertNull(usersCache.get("alice@mail.com"));
+    }
+
+    @Test
+    @DisplayName("A read stamped before an applied invalidation is not cached")
+    void staleLoad_isRejected() {
+        long before = usersCache.stamp();
+        usersCache.apply("email:alice@mail.com", 10, "other");
+
+        usersCache.put(alice, before);
+        assertNull(usersCache.get("alice@mail.com"));
+
+        assertEquals(10, usersCache.stamp());
+        usersCache.put(alice, usersCache.stamp());
+        assertNotNull(usersCache.get("alice@mail.com"));
+    }
+
+    @Test
+    @DisplayName("An entry loaded after an invalidation was applied survives records of other keys")
+    void newerEntry_survivesUnrelatedInvalidation() {
+        usersCache.apply("email:alice@mail.com", 10, "other");
+        usersCache.put(alice, usersCache.stamp());
+
+        usersCache.apply("email:bob@mail.com", 11, "other");
+
+        assertNotNull(usersCache.get("alice@mail.com"));
+    }
+
+    @Test
+    @DisplayName("Local writes evict, broadcast id and email keys and hold reads until their own record is applied")
+    void invalidate_waitsForOwnRecord() {
+        when(publisher.publish(anyString(), anyString())).thenReturn(new CompletableFuture<>());
+        usersCache.put(alice, usersCache.stamp());
+
+        usersCache.invalidate(1L, "alice@mail.com", null);
+
+        assertNull(usersCache.get("alice@mail.com"));
+        verify(publisher).publish("id:1", usersCache.getInstanceId());
+        verify(publisher).publish("email:alice@mail.com", usersCache.getInstanceId());
+
+        usersCache.put(alice, usersCache.stamp());
+        assertNull(usersCache.get("alice@mail.com"));
+
+        usersCache.apply("id:1", 10, usersCache.getInstanceId());
+        usersCache.apply("email:alice@mail.com", 11, usersCache.getInstanceId());
+        usersCache.put(alice, usersCache.stamp());
+        assertNotNull(usersCache.get("alice@mail.com"));
+    }
+
+    @Test
+    @DisplayName("A failed broadcast releases the keys it was holding")
+    void failedPublish_releasesKeys() {
+        when(publisher.publish(anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        usersCache.invalidate(null, "alice@mail.com");
+        usersCache.put(alice, usersCache.stamp());
+
+        assertNotNull(usersCache.get("alice@mail.com"));
+    }
+}
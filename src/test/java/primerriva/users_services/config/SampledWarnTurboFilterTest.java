@@ -0,0 +1,51 @@
+package primerriva.users_services.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static primerriva.users_services.config.SampledWarnTurboFilter.SAMPLED;
+
+class SampledWarnTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("primerriva.users_services.serviceImpl.UsersServiceImpl");
+    private SampledWarnTurboFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new SampledWarnTurboFilter();
+        filter.setSampleEvery(10);
+    }
+
+    @Test
+    @DisplayName("Lets one marked warning in sampleEvery through per format")
+    void markedWarnings_areSampledPerFormat() {
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (filter.decide(SAMPLED, logger, Level.WARN, "User already exists with email: {}", null, null) != FilterReply.DENY) {
+                accepted++;
+            }
+        }
+
+        assertEquals(10, accepted);
+        assertEquals(FilterReply.NEUTRAL,
+                filter.decide(SAMPLED, logger, Level.WARN, "ID must be a positive number", null, null));
+    }
+
+    @Test
+    @DisplayName("Leaves unmarked warnings and other levels alone")
+    void otherEvents_areNotSampled() {
+        Logger flowControl = context.getLogger("primerriva.users_services.kafka.KafkaFlowController");
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, flowControl, Level.WARN, "Paused {} (db latency {} ms)", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(SAMPLED, logger, Level.ERROR, "Rejected {}: {}", null, null));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package primerriva.users_services.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import primerriva.users_services.dto.UserEventDto;
+import primerriva.users_services.dto.UsersDto;
+import primerriva.users_services.models.Users;
+
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsersRuntimeHintsTest {
+
+    @Test
+    @DisplayName("Registers reflection hints for the entity, DTOs and Jackson map payloads")
+    void registersReflectionHints() {
+        RuntimeHints hints = new RuntimeHints();
+        new UsersRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        for (Class<?> type : new Class<?>[] { Users.class, UsersDto.class, UserEventDto.class }) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(type)
+                    .withMemberCategories(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS)
+                    .test(hints), "Missing hints for " + type.getSimpleName());
+        }
+        assertTrue(RuntimeHintsPredicates.reflection().onType(LinkedHashMap.class)
+                .withMemberCategories(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                .test(hints));
+    }
+}
@@ -0,0 +1,241 @@
+package primerriva.users_services.kafka;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class KafkaFlowControllerTest {
+
+    private static final double MIN_SCALE = 0.1;
+    private static final double SCALE_STEP = 0.1;
+    private static final int CONTENTION_CHECKS = 2;
+    private static final int SATURATION_CHECKS = 5;
+
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+
+    @Mock
+    private HikariDataSource dataSource;
+
+    @Mock
+    private HikariPoolMXBean pool;
+
+    @Mock
+    private Connection connection;
+
+    private final Map<String, MessageListenerContainer> containers = new HashMap<>();
+    private TopicRateLimiter rateLimiter;
+    private Timer acquireTimer;
+    private Timer usageTimer;
+    private KafkaFlowController flowController;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (String topic : KafkaTopics.REQUEST_TOPICS) {
+            MessageListenerContainer container = mock(MessageListenerContainer.class);
+            containers.put(topic, container);
+            when(registry.getListenerContainer(topic)).thenReturn(container);
+        }
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(dataSource.getPoolName()).thenReturn("users-pool");
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        acquireTimer = meterRegistry.timer("hikaricp.connections.acquire", "pool", "users-pool");
+        usageTimer = meterRegistry.timer("hikaricp.connections.usage", "pool", "users-pool");
+        rateLimiter = new TopicRateLimiter(500, 100, 0.5, meterRegistry);
+        flowController = new KafkaFlowController(registry, rateLimiter, dataSource, meterRegistry,
+                50, 500, MIN_SCALE, SCALE_STEP, CONTENTION_CHECKS, SATURATION_CHECKS);
+    }
+
+    @Test
+    @DisplayName("Halves the scale while degraded and adds it back one step at a time")
+    void degradedLatency_appliesAimd() {
+        flowController.recordLatency(ms(100));
+
+        flowController.adjust();
+        assertEquals(0.5, rateLimiter.getScale(), 1e-9);
+        flowController.adjust();
+        assertEquals(0.25, rateLimiter.getScale(), 1e-9);
+        for (int i = 0; i < 5; i++) {
+            flowController.adjust();
+        }
+        assertEquals(MIN_SCALE, rateLimiter.getScale(), 1e-9);
+
+        for (int i = 0; i < 30; i++) {
+            flowController.recordLatency(ms(1));
+        }
+        flowController.adjust();
+        assertEquals(MIN_SCALE + SCALE_STEP, rateLimiter.getScale(), 1e-9);
+        assertTrue(KafkaTopics.REQUEST_TOPICS.stream().noneMatch(flowController::isPaused));
+    }
+
+    @Test
+    @DisplayName("Latency is taken from the pool's acquire and usage timers")
+    void poolTimers_driveLatency() {
+        connectionUsed(500, 500);
+        flowController.adjust();
+        assertEquals(1.0, rateLimiter.getScale(), 1e-9, "Connections used before the first check are ignored");
+
+        connectionUsed(20, 80);
+        connectionUsed(20, 80);
+
+        flowController.adjust();
+        assertEquals(0.5, rateLimiter.getScale(), 1e-9);
+
+        // No connection was borrowed since, e.g. only cache hits: the average is left alone.
+        flowController.adjust();
+        assertEquals(0.25, rateLimiter.getScale(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Critical latency pauses writes but keeps reads flowing")
+    void criticalLatency_pausesWritesOnly() {
+        flowController.recordLatency(ms(800));
+
+        flowController.adjust();
+
+        for (String topic : KafkaTopics.REQUEST_TOPICS) {
+            boolean read = TopicRateLimiter.READ_TOPICS.contains(topic);
+            assertEquals(!read, flowController.isPaused(topic), topic);
+            verify(containers.get(topic), times(read ? 0 : 1)).pause();
+        }
+    }
+
+    @Test
+    @DisplayName("A single sample of waiting threads changes nothing")
+    void singleWaitingSample_isIgnored() {
+        waiting(1);
+        flowController.adjust();
+        waiting(0);
+        flowController.adjust();
+
+        assertEquals(1.0, rateLimiter.getScale(), 1e-9);
+        assertTrue(KafkaTopics.REQUEST_TOPICS.stream().noneMatch(flowController::isPaused));
+    }
+
+    @Test
+    @DisplayName("Waiting over consecutive checks degrades without pausing")
+    void persistentWaiting_degradesWithoutPausing() {
+        waiting(1);
+
+        flowController.adjust();
+        assertEquals(1.0, rateLimiter.getScale(), 1e-9);
+        flowController.adjust();
+
+        assertEquals(0.5, rateLimiter.getScale(), 1e-9);
+        assertTrue(KafkaTopics.REQUEST_TOPICS.stream().noneMatch(flowController::isPaused));
+    }
+
+    @Test
+    @DisplayName("Reads are only paused once waiting lasts for the saturation checks")
+    void saturatedPool_pausesReadsLast() {
+        waiting(3);
+
+        for (int i = 1; i < SATURATION_CHECKS; i++) {
+            flowController.adjust();
+        }
+        assertTrue(KafkaTopics.REQUEST_TOPICS.stream().noneMatch(flowController::isPaused));
+
+        flowController.adjust();
+
+        assertTrue(KafkaTopics.REQUEST_TOPICS.stream().allMatch(flowController::isPaused));
+        verify(containers.get(KafkaTopics.GET_USER_BY_USERNAME)).pause();
+    }
+
+    @Test
+    @DisplayName("Critical latency with brief waits keeps reads flowing")
+    void criticalLatencyWithBriefWaits_keepsReads() {
+        flowController.recordLatency(ms(800));
+
+        for (int i = 0; i < 10; i++) {
+            waiting(i % 2);
+            flowController.adjust();
+        }
+
+        assertTrue(flowController.isPaused(KafkaTopics.CREATE_USER));
+        assertFalse(flowController.isPaused(KafkaTopics.GET_USER_BY_USERNAME));
+        assertFalse(flowController.isPaused(KafkaTopics.GET_ONE_USER));
+    }
+
+    @Test
+    @DisplayName("Paused topics probe the pool and resume at the minimum scale once healthy")
+    void pausedTopics_resumeAfterHealthyProbes() throws Exception {
+        flowController.recordLatency(ms(1000));
+        flowController.adjust();
+        assertTrue(flowController.isPaused(KafkaTopics.CREATE_USER));
+
+        // A single fast probe is not enough; the smoothed latency has to come down first.
+        connectionUsed(0, 1);
+        flowController.adjust();
+        assertTrue(flowController.isPaused(KafkaTopics.CREATE_USER));
+        verify(connection, times(1)).isValid(anyInt());
+
+        int checks = 1;
+        while (flowController.isPaused(KafkaTopics.CREATE_USER) && checks < 100) {
+            // The probe's borrow shows up in the pool timers.
+            connectionUsed(0, 1);
+            flowController.adjust();
+            checks++;
+        }
+
+        assertFalse(flowController.isPaused(KafkaTopics.CREATE_USER));
+        assertTrue(checks > 10, "Resumed after only " + checks + " checks");
+        assertEquals(MIN_SCALE, rateLimiter.getScale(), 1e-9);
+        verify(containers.get(KafkaTopics.CREATE_USER)).resume();
+        verify(containers.get(KafkaTopics.GET_ONE_USER), never()).resume();
+    }
+
+    @Test
+    @DisplayName("Does not resume while the pool still has waiting threads")
+    void waitingThreads_blockResume() {
+        flowController.recordLatency(ms(1000));
+        flowController.adjust();
+        waiting(1);
+
+        for (int i = 0; i < 50; i++) {
+            flowController.adjust();
+        }
+
+        assertTrue(flowController.isPaused(KafkaTopics.UPDATE_USER));
+        verify(containers.get(KafkaTopics.UPDATE_USER), never()).resume();
+    }
+
+    /**
+     * Hikari only queues a thread when no idle connection is left, so the two move together.
+     */
+    private void waiting(int threads) {
+        when(pool.getThreadsAwaitingConnection()).thenReturn(threads);
+        when(pool.getIdleConnections()).thenReturn(threads > 0 ? 0 : 5);
+    }
+
+    private void connectionUsed(long acquireMs, long usageMs) {
+        acquireTimer.record(acquireMs, TimeUnit.MILLISECONDS);
+        usageTimer.record(usageMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
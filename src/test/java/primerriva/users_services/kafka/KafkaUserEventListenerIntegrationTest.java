@@ -0,0 +1,437 @@
+package primerriva.users_services.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import primerriva.users_services.cache.UsersCache;
+import primerriva.users_services.models.Users;
+import primerriva.users_services.repositories.UsersRepository;
+
+import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Drives {@link KafkaUserEventListener} end to end on an embedded broker with two partitions
+ * per topic and two consumer threads per listener.
+ */
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.auto-offset-reset=earliest",
+        "spring.kafka.listener.concurrency=2",
+        "kafka.topic.partitions=2",
+        "kafka.flow.read-rate=200"
+})
+@EmbeddedKafka(partitions = 2, topics = {
+        KafkaTopics.GET_USER_BY_USERNAME,
+        KafkaTopics.CREATE_USER,
+        KafkaTopics.GET_ONE_USER,
+        KafkaTopics.UPDATE_USER,
+        KafkaTopics.DELETE_USER,
+        KafkaTopics.CACHE_INVALIDATION,
+        KafkaUserEventListenerIntegrationTest.RESPONSE_TOPIC
+})
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class KafkaUserEventListenerIntegrationTest {
+
+    static final String RESPONSE_TOPIC = "response-topic";
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(60);
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private UsersCache usersCache;
+
+    @Autowired
+    private KafkaUserEventListener userEventListener;
+
+    @MockitoSpyBean
+    private KafkaMessageProcessor messageProcessor;
+
+    @Autowired
+    @Qualifier("kafkaListenerContainerFactory")
+    private ConcurrentKafkaListenerContainerFactory<Object, Object> containerFactory;
+
+    @Value("${kafka.flow.read-rate}")
+    private double readRate;
+
+    @Value("${kafka.flow.read-floor:0.5}")
+    private double readFloor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, List<JsonNode>> responses = new ConcurrentHashMap<>();
+    private final ExecutorService responseReader = Executors.newSingleThreadExecutor();
+    private volatile boolean reading = true;
+
+    @BeforeAll
+    void startResponseReader() throws InterruptedException {
+        for (String topic : KafkaTopics.REQUEST_TOPICS) {
+            ContainerTestUtils.waitForAssignment(registry.getListenerContainer(topic),
+                    embeddedKafka.getPartitionsPerTopic());
+        }
+        ContainerTestUtils.waitForAssignment(registry.getListenerContainer(KafkaTopics.CACHE_INVALIDATION), 1);
+        Map<String, Object> props = KafkaTestUtils.consumerProps("integration-test-responses", "true", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer()).createConsumer();
+        embeddedKafka.consumeFromAnEmbeddedTopic(consumer, RESPONSE_TOPIC);
+
+        CountDownLatch started = new CountDownLatch(1);
+        responseReader.submit(() -> {
+            try (consumer) {
+                started.countDown();
+                while (reading) {
+                    for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(100))) {
+                        responses.computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+                                .add(objectMapper.readTree(record.value()));
+                    }
+                }
+            }
+            return null;
+        });
+        started.await(10, TimeUnit.SECONDS);
+    }
+
+    @AfterAll
+    void stopResponseReader() throws InterruptedException {
+        reading = false;
+        responseReader.shutdown();
+        responseReader.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Concurrent creates for the same email produce one user and conflicts for the rest")
+    void concurrentCreates_sameEmail_onlyOneSucceeds() throws Exception {
+        String email = uniqueEmail();
+        List<String> correlationIds = IntStream.range(0, 20).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+        ExecutorService senders = Executors.newFixedThreadPool(4);
+        for (String correlationId : correlationIds) {
+            // Random keys spread the requests over both partitions, hence both consumer threads.
+            senders.submit(() -> send(KafkaTopics.CREATE_USER, correlationId, Map.of(
+                    "correlationId", correlationId, "name", "Alice", "email", email, "password", "secret")));
+        }
+        senders.shutdown();
+        assertTrue(senders.awaitTermination(10, TimeUnit.SECONDS));
+
+        Map<String, JsonNode> answers = awaitResponses(correlationIds);
+
+        long created = answers.values().stream().filter(response -> !response.has("status")).count();
+        long conflicts = answers.values().stream().filter(response -> response.path("status").asInt() == 409).count();
+        assertEquals(1, created);
+        assertEquals(correlationIds.size() - 1, conflicts);
+        assertEquals(1, usersRepository.findAll().stream().filter(user -> email.equals(user.getEmail())).count());
+    }
+
+    @Test
+    @DisplayName("A redelivered create is answered with a conflict and does not duplicate the user")
+    void redeliveredCreate_isIdempotent() throws Exception {
+        String email = uniqueEmail();
+        String correlationId = UUID.randomUUID().toString();
+        Map<String, Object> request = Map.of(
+                "correlationId", correlationId, "name", "Bob", "email", email, "password", "secret");
+
+        send(KafkaTopics.CREATE_USER, email, request);
+        send(KafkaTopics.CREATE_USER, email, request);
+
+        List<JsonNode> answers = awaitResponseCount(correlationId, 2);
+
+        assertFalse(answers.get(0).has("status"), "First delivery should succeed");
+        assertEquals(409, answers.get(1).path("status").asInt());
+        assertEquals(1, usersRepository.findAll().stream().filter(user -> email.equals(user.getEmail())).count());
+    }
+
+    @Test
+    @DisplayName("Poison messages are dead-lettered on the first attempt without blocking the records behind them")
+    void poisonMessages_areDeadLetteredOnce() throws Exception {
+        Users user = createUser();
+        String key = user.getEmail();
+        String malformed = "{not json";
+        String uncorrelated = objectMapper.writeValueAsString(Map.of("email", user.getEmail()));
+
+        kafkaTemplate.send(KafkaTopics.GET_ONE_USER, key, malformed).get();
+        kafkaTemplate.send(KafkaTopics.GET_ONE_USER, key, uncorrelated).get();
+        String missingCorrelationId = UUID.randomUUID().toString();
+        send(KafkaTopics.GET_ONE_USER, key, Map.of("correlationId", missingCorrelationId));
+        String correlationId = UUID.randomUUID().toString();
+        send(KafkaTopics.GET_ONE_USER, key, Map.of("correlationId", correlationId, "email", user.getEmail()));
+
+        assertEquals(400, awaitResponses(List.of(missingCorrelationId)).get(missingCorrelationId).path("status").asInt());
+        JsonNode answer = awaitResponses(List.of(correlationId)).get(correlationId);
+        assertEquals(user.getId().longValue(), answer.path("id").asLong());
+
+        List<ConsumerRecord<String, String>> deadLetters = awaitDeadLetters(KafkaTopics.GET_ONE_USER, key, 2);
+        assertEquals(List.of(malformed, uncorrelated), deadLetters.stream().map(ConsumerRecord::value).toList());
+        assertEquals(com.fasterxml.jackson.core.JsonParseException.class.getName(), exceptionCause(deadLetters.get(0)));
+        assertEquals(IllegalArgumentException.class.getName(), exceptionCause(deadLetters.get(1)));
+        verify(messageProcessor, times(1)).process(eq(KafkaTopics.GET_ONE_USER), eq(malformed), any(), any());
+        verify(messageProcessor, times(1)).process(eq(KafkaTopics.GET_ONE_USER), eq(uncorrelated), any(), any());
+    }
+
+    @Test
+    @DisplayName("Updates for one user are applied in the order they were produced")
+    void updatesForOneKey_keepOrder() throws Exception {
+        Users user = createUser();
+        String key = String.valueOf(user.getId());
+
+        List<String> correlationIds = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            String correlationId = UUID.randomUUID().toString();
+            correlationIds.add(correlationId);
+            send(KafkaTopics.UPDATE_USER, key, Map.of(
+                    "correlationId", correlationId, "id", user.getId(), "username", "name-" + i));
+        }
+
+        Map<String, JsonNode> answers = awaitResponses(correlationIds);
+
+        long previousVersion = -1;
+        for (int i = 0; i < correlationIds.size(); i++) {
+            JsonNode answer = answers.get(correlationIds.get(i));
+            assertEquals("name-" + (i + 1), answer.path("username").asText());
+            assertTrue(answer.path("version").asLong() > previousVersion, "Versions must grow in produce order");
+            previousVersion = answer.path("version").asLong();
+        }
+        assertEquals("name-20", usersRepository.findById(user.getId()).orElseThrow().getUsername());
+    }
+
+    @Test
+    @DisplayName("Every request is answered while a second group member joins and leaves during load")
+    void rebalanceDuringLoad_answersEveryRequest() throws Exception {
+        Users user = createUser();
+        CountDownLatch joined = new CountDownLatch(1);
+        ConcurrentMessageListenerContainer<Object, Object> secondMember = containerFactory.createContainer(KafkaTopics.GET_ONE_USER);
+        secondMember.getContainerProperties().setGroupId("users-service-group");
+        secondMember.getContainerProperties().setMessageListener((MessageListener<Object, Object>) record ->
+                userEventListener.handleGetOneUserRequest((String) record.value()));
+        secondMember.getContainerProperties().setConsumerRebalanceListener(new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                joined.countDown();
+            }
+        });
+        secondMember.setConcurrency(1);
+        secondMember.setBeanName("second-member");
+
+        List<String> correlationIds = new ArrayList<>();
+        try {
+            for (int i = 0; i < 300; i++) {
+                String correlationId = UUID.randomUUID().toString();
+                correlationIds.add(correlationId);
+                send(KafkaTopics.GET_ONE_USER, correlationId, Map.of("correlationId", correlationId, "email", user.getEmail()));
+                if (i == 100) {
+                    secondMember.start();
+                }
+                if (i == 200) {
+                    assertTrue(joined.await(30, TimeUnit.SECONDS), "Second member never joined the group");
+                    secondMember.stop();
+                }
+            }
+        } finally {
+            secondMember.stop();
+        }
+        ContainerTestUtils.waitForAssignment(registry.getListenerContainer(KafkaTopics.GET_ONE_USER),
+                embeddedKafka.getPartitionsPerTopic());
+
+        Map<String, JsonNode> answers = awaitResponses(correlationIds);
+
+        assertTrue(answers.values().stream().allMatch(answer -> answer.path("id").asLong() == user.getId()));
+    }
+
+    @Test
+    @DisplayName("Lookups run at no less than the read-rate floor of the flow control")
+    void lookups_meetThroughputFloor() throws Exception {
+        Users user = createUser();
+        // Three times the burst so the token bucket, not the burst, sets the pace.
+        int requests = (int) (3 * readRate);
+
+        List<String> correlationIds = new ArrayList<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            String correlationId = UUID.randomUUID().toString();
+            correlationIds.add(correlationId);
+            // Sent without waiting for each ack so the producer does not set the pace.
+            sends.add(kafkaTemplate.send(KafkaTopics.GET_USER_BY_USERNAME, correlationId, objectMapper.writeValueAsString(
+                    Map.of("correlationId", correlationId, "username", user.getEmail()))));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        awaitResponses(correlationIds);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        // Flow control never throttles reads below readRate * readFloor; allow 20% for the test harness.
+        double floor = 0.8 * readRate * readFloor;
+        double throughput = requests / seconds;
+        // A full bucket serves readRate requests at once, the rest at no more than readRate per second.
+        double ceiling = requests * readRate / (requests - readRate);
+        assertTrue(throughput >= floor, "Expected at least " + floor + " lookups/s, got " + throughput);
+        assertTrue(throughput <= 1.2 * ceiling, "Lookups were not rate limited: " + throughput + "/s");
+    }
+
+    @Test
+    @DisplayName("Cache invalidations advance the cache version without leaving a consumer group behind")
+    void cacheInvalidations_useOffsetsAndNoConsumerGroup() throws Exception {
+        long before = usersCache.stamp();
+        Users user = createUser();
+
+        long deadline = System.nanoTime() + RESPONSE_TIMEOUT.toNanos();
+        while (usersCache.stamp() <= before && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(usersCache.stamp() > before, "Own invalidation was not applied");
+        assertNotNull(usersRepository.findById(user.getId()));
+
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString()))) {
+            Collection<ConsumerGroupListing> groups = admin.listConsumerGroups().all().get(10, TimeUnit.SECONDS);
+            assertTrue(groups.stream().noneMatch(group -> group.groupId().startsWith("users-cache")), groups.toString());
+        }
+    }
+
+    private Users createUser() throws Exception {
+        String email = uniqueEmail();
+        String correlationId = UUID.randomUUID().toString();
+        send(KafkaTopics.CREATE_USER, email, Map.of(
+                "correlationId", correlationId, "name", "Carol", "email", email, "password", "secret"));
+        awaitResponses(List.of(correlationId));
+        return usersRepository.findByEmail(email);
+    }
+
+    private void send(String topic, String key, Map<String, Object> payload) {
+        try {
+            kafkaTemplate.send(topic, key, objectMapper.writeValueAsString(payload)).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not send to " + topic, e);
+        }
+    }
+
+    private Map<String, JsonNode> awaitResponses(Collection<String> correlationIds) throws InterruptedException {
+        long deadline = System.nanoTime() + RESPONSE_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (correlationIds.stream().allMatch(this::isAnswered)) {
+                Map<String, JsonNode> answers = new LinkedHashMap<>();
+                correlationIds.forEach(id -> answers.put(id, responses.get(id).get(0)));
+                return answers;
+            }
+            Thread.sleep(50);
+        }
+        long missing = correlationIds.stream().filter(id -> !isAnswered(id)).count();
+        return fail(missing + " of " + correlationIds.size() + " requests were not answered");
+    }
+
+    private List<ConsumerRecord<String, String>> awaitDeadLetters(String topic, String key, int count) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("integration-test-dlt-" + UUID.randomUUID(), "false", embeddedKafka);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            consumer.subscribe(List.of(KafkaTopics.deadLetter(topic)));
+            long deadline = System.nanoTime() + RESPONSE_TIMEOUT.toNanos();
+            while (records.size() < count && System.nanoTime() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(100))) {
+                    if (key.equals(record.key())) {
+                        records.add(record);
+                    }
+                }
+            }
+            // Give a duplicate dead letter the chance to show up before asserting on the count.
+            consumer.poll(Duration.ofSeconds(1)).forEach(record -> {
+                if (key.equals(record.key())) {
+                    records.add(record);
+                }
+            });
+        }
+        assertEquals(count, records.size(), "Dead letters for " + key);
+        return records;
+    }
+
+    private static String exceptionCause(ConsumerRecord<String, String> record) {
+        return new String(record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN).value(), StandardCharsets.UTF_8);
+    }
+
+    private boolean isAnswered(String correlationId) {
+        // The reader creates the list before adding to it, so an empty list is not an answer yet.
+        return !responses.getOrDefault(correlationId, List.of()).isEmpty();
+    }
+
+    private List<JsonNode> awaitResponseCount(String correlationId, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + RESPONSE_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            List<JsonNode> answers = responses.getOrDefault(correlationId, List.of());
+            if (answers.size() >= count) {
+                synchronized (answers) {
+                    return new ArrayList<>(answers);
+                }
+            }
+            Thread.sleep(50);
+        }
+        return fail("Expected " + count + " responses for " + correlationId);
+    }
+
+    private static String uniqueEmail() {
+        return UUID.randomUUID() + "@mail.com";
+    }
+}
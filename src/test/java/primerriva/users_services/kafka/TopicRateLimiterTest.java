@@ -0,0 +1,69 @@
+package primerriva.users_services.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TopicRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new TopicRateLimiter(200, 50, 0.5, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Reads keep their floor while writes follow the scale down")
+    void reducedScale_favorsReads() {
+        rateLimiter.setScale(0.1);
+
+        assertEquals(100, rateLimiter.effectiveRate(KafkaTopics.GET_USER_BY_USERNAME), 0.001);
+        assertEquals(100, rateLimiter.effectiveRate(KafkaTopics.GET_ONE_USER), 0.001);
+        assertEquals(5, rateLimiter.effectiveRate(KafkaTopics.CREATE_USER), 0.001);
+        assertEquals(5, rateLimiter.effectiveRate(KafkaTopics.UPDATE_USER), 0.001);
+    }
+
+    @Test
+    @DisplayName("Scale is clamped between 0 and 1")
+    void scale_isClamped() {
+        rateLimiter.setScale(3);
+        assertEquals(1.0, rateLimiter.getScale());
+        rateLimiter.setScale(-1);
+        assertEquals(0.0, rateLimiter.getScale());
+    }
+
+    @Test
+    @DisplayName("Acquire blocks once the burst is spent")
+    void acquire_throttlesAfterBurst() {
+        rateLimiter.setScale(0.2);
+        // 10 permits/s: the first 10 come from the burst, the next 5 need about half a second.
+        long start = System.nanoTime();
+        for (int i = 0; i < 15; i++) {
+            rateLimiter.acquire(KafkaTopics.DELETE_USER);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs >= 400, "Expected throttling, took " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Current limits are published per topic")
+    void limits_areExposedAsGauges() {
+        rateLimiter.setScale(0.5);
+
+        double createLimit = meterRegistry.get("users.flow.rate.limit")
+                .tag("topic", KafkaTopics.CREATE_USER)
+                .gauge()
+                .value();
+
+        assertEquals(25, createLimit, 0.001);
+    }
+}
@@ -8,9 +8,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import primerriva.users_services.cache.UsersCache;
 import primerriva.users_services.dto.UsersDto;
 import primerriva.users_services.exceptions.UserAlreadyExistsException;
 import primerriva.users_services.exceptions.UserNotFoundException;
+import primerriva.users_services.exceptions.UserVersionConflictException;
 import primerriva.users_services.mapper.UsersMapper;
 import primerriva.users_services.models.Users;
 import primerriva.users_services.repositories.UsersRepository;
@@ -32,6 +35,9 @@ class UsersServiceImplTest {
     @Mock
     private UsersMapper usersMapper;
 
+    @Mock
+    private UsersCache usersCache;
+
 
     @InjectMocks
     private UsersServiceImpl usersService;
@@ -144,6 +150,23 @@ class UsersServiceImplTest {
             verify(usersRepository).findByEmail(user.getEmail());
         }
 
+        @Test
+        @DisplayName("Returns cached user without querying the repository")
+        void cachedUser_skipsRepository() {
+            Users cached = Users.builder()
+                    .id(1L)
+                    .username("Alice")
+                    .email("alice@mail.com")
+                    .build();
+
+            when(usersCache.get(cached.getEmail())).thenReturn(cached);
+
+            Users result = usersService.getUserByEmail(cached.getEmail());
+
+            assertSame(cached, result);
+            verify(usersRepository, never()).findByEmail(anyString());
+        }
+
         @Test
         @DisplayName("Throws UserNotFoundException when user not found")
         void userNotFound_throwsException() {
@@ -195,6 +218,93 @@ class UsersServiceImplTest {
             assertEquals("Alice Updated", existingUser.getUsername());
             assertEquals("alice.updated@mail.com", existingUser.getEmail());
             assertEquals("newPassword", existingUser.getPassword());
+            verify(usersCache).invalidate(1L, "alice@mail.com", "alice.updated@mail.com");
+        }
+
+        @Test
+        @DisplayName("Only changes the fields present in the payload")
+        void partialUpdate_keepsAbsentFields() {
+            UsersDto patch = UsersDto.builder()
+                    .username("Alice Updated")
+                    .build();
+            Users existingUser = Users.builder()
+                    .id(1L)
+                    .username("Alice")
+                    .email("alice@mail.com")
+                    .password("hashedPassword")
+                    .version(3L)
+                    .build();
+
+            when(usersRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+            when(usersRepository.save(existingUser)).thenReturn(existingUser);
+
+            usersService.updateUser(1L, patch);
+
+            assertEquals("Alice Updated", existingUser.getUsername());
+            assertEquals("alice@mail.com", existingUser.getEmail());
+            assertEquals("hashedPassword", existingUser.getPassword());
+            verify(usersRepository, never()).findByEmail(anyString());
+        }
+
+        @Test
+        @DisplayName("Skips the write when nothing changes")
+        void unchangedPayload_skipsSave() {
+            UsersDto patch = UsersDto.builder()
+                    .email("alice@mail.com")
+                    .build();
+            Users existingUser = Users.builder()
+                    .id(1L)
+                    .username("Alice")
+                    .email("alice@mail.com")
+                    .build();
+
+            when(usersRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+
+            assertSame(existingUser, usersService.updateUser(1L, patch));
+            verify(usersRepository, never()).save(any());
+            verifyNoInteractions(usersCache);
+        }
+
+        @Test
+        @DisplayName("Throws UserVersionConflictException when the payload version is stale")
+        void staleVersion_throwsConflict() {
+            UsersDto patch = UsersDto.builder()
+                    .username("Alice Updated")
+                    .version(2L)
+                    .build();
+            Users existingUser = Users.builder()
+                    .id(1L)
+                    .username("Alice")
+                    .email("alice@mail.com")
+                    .version(3L)
+                    .build();
+
+            when(usersRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+
+            assertThrows(UserVersionConflictException.class, () -> usersService.updateUser(1L, patch),
+                    "Expected UserVersionConflictException for stale version");
+            verify(usersRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Throws UserVersionConflictException when a concurrent update wins")
+        void concurrentUpdate_throwsConflict() {
+            UsersDto patch = UsersDto.builder()
+                    .username("Alice Updated")
+                    .build();
+            Users existingUser = Users.builder()
+                    .id(1L)
+                    .username("Alice")
+                    .email("alice@mail.com")
+                    .version(3L)
+                    .build();
+
+            when(usersRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+            when(usersRepository.save(existingUser))
+                    .thenThrow(new ObjectOptimisticLockingFailureException(Users.class, 1L));
+
+            assertThrows(UserVersionConflictException.class, () -> usersService.updateUser(1L, patch),
+                    "Expected UserVersionConflictException for lost optimistic lock");
         }
 
         @Test